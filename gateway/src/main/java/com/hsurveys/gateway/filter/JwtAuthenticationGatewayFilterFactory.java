@@ -1,9 +1,12 @@
 package com.hsurveys.gateway.filter;
 
+import com.hsurveys.gateway.identity.IdentityHeaderCodec;
+import com.hsurveys.gateway.utils.IdentityHeaderEncoder;
 import com.hsurveys.gateway.utils.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -22,15 +25,24 @@ import java.util.UUID;
 public class JwtAuthenticationGatewayFilterFactory extends AbstractGatewayFilterFactory<JwtAuthenticationGatewayFilterFactory.Config> {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationGatewayFilterFactory.class);
+    private static final List<String> LEGACY_IDENTITY_HEADERS = List.of(
+            "X-User-Id", "X-Username", "X-User-Name", "X-Organization-Id", "X-Department-Id", "X-Team-Id",
+            "X-Authorities", "X-User-Authorities", "X-Roles", "X-User-Roles", "X-Authenticated");
     private final JwtUtil jwtUtil;
+    private final IdentityHeaderEncoder identityHeaderEncoder;
 
-    public JwtAuthenticationGatewayFilterFactory(JwtUtil jwtUtil) {
+    public JwtAuthenticationGatewayFilterFactory(JwtUtil jwtUtil, IdentityHeaderEncoder identityHeaderEncoder) {
         super(Config.class);
         this.jwtUtil = jwtUtil;
+        this.identityHeaderEncoder = identityHeaderEncoder;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        if (config.getIdentityMode() == IdentityMode.COMPACT && !identityHeaderEncoder.isConfigured()) {
+            throw new IllegalStateException("Compact identity mode requires identity.secret to be configured");
+        }
+
         return (exchange, chain) -> {
             ServerHttpRequest request = exchange.getRequest();
             String path = request.getURI().getPath();
@@ -52,7 +64,10 @@ public class JwtAuthenticationGatewayFilterFactory extends AbstractGatewayFilter
             }
 
             try {
-            
+                if (config.getIdentityMode() == IdentityMode.COMPACT) {
+                    return applyCompactIdentity(exchange, chain, token);
+                }
+
                 if (!jwtUtil.validateToken(token)) {
                     logger.warn("Invalid token for request: {}", path);
                     return onError(exchange, "Invalid authentication token", HttpStatus.UNAUTHORIZED);
@@ -111,6 +126,25 @@ public class JwtAuthenticationGatewayFilterFactory extends AbstractGatewayFilter
         };
     }
 
+    private Mono<Void> applyCompactIdentity(ServerWebExchange exchange, GatewayFilterChain chain, String token) {
+        ServerHttpRequest request = exchange.getRequest();
+        String identity = identityHeaderEncoder.encode(token);
+        if (identity == null) {
+            logger.warn("Invalid token for request: {}", request.getURI().getPath());
+            return onError(exchange, "Invalid authentication token", HttpStatus.UNAUTHORIZED);
+        }
+
+        ServerHttpRequest mutatedRequest = request.mutate()
+            .headers(httpHeaders -> {
+                // Upstreams still reading the legacy headers must not get values sent by the client
+                LEGACY_IDENTITY_HEADERS.forEach(httpHeaders::remove);
+                httpHeaders.set(IdentityHeaderCodec.HEADER_NAME, identity);
+            })
+            .build();
+
+        return chain.filter(exchange.mutate().request(mutatedRequest).build());
+    }
+
     private boolean isPublicEndpoint(String path) {
         return path.startsWith("/api/auth/login") ||
                path.startsWith("/api/auth/register") ||
@@ -184,7 +218,20 @@ public class JwtAuthenticationGatewayFilterFactory extends AbstractGatewayFilter
 
 
 
+    public enum IdentityMode {
+        LEGACY,
+        COMPACT
+    }
+
     public static class Config {
+        private IdentityMode identityMode = IdentityMode.LEGACY;
 
+        public IdentityMode getIdentityMode() {
+            return identityMode;
+        }
+
+        public void setIdentityMode(IdentityMode identityMode) {
+            this.identityMode = identityMode;
+        }
     }
 } 
\ No newline at end of file
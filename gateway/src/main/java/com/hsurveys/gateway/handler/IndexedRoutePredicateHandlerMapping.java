@@ -0,0 +1,132 @@
+package com.hsurveys.gateway.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Replaces the default linear route scan with a lookup through a {@link RouteIndex}.
+ * <p>
+ * A route refresh only marks the index stale: the caching route locator publishes the refresh
+ * result before it swaps in the new routes, so the index is rebuilt by the next lookup from the
+ * routes it then serves. While the locator still serves the routes from before the refresh, lookups
+ * keep using the index built from them, or the linear scan if there is none. An index built for an
+ * older refresh never replaces a newer one.
+ */
+@Component
+@ConditionalOnProperty(name = "route-index.enabled", havingValue = "true", matchIfMissing = true)
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedRoutePredicateHandlerMapping.class);
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator routeDefinitionLocator;
+    private final AtomicReference<RouteIndex> index = new AtomicReference<>();
+    private final AtomicReference<Refresh> latestRefresh = new AtomicReference<>(new Refresh(0, null));
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                               RouteLocator routeLocator,
+                                               RouteDefinitionLocator routeDefinitionLocator,
+                                               GlobalCorsProperties globalCorsProperties,
+                                               Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            logger.warn("Route refresh failed, keeping the current route index");
+            return;
+        }
+        List<Route> replacedRoutes = currentRoutes();
+        Refresh refresh = latestRefresh.updateAndGet(previous -> new Refresh(previous.generation() + 1, replacedRoutes));
+        logger.debug("Routes refreshed, route index marked stale at generation {}", refresh.generation());
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RouteIndex current = index.get();
+        Refresh refresh = latestRefresh.get();
+        if (current != null && current.generation() >= refresh.generation()) {
+            return lookupIndexedRoute(current, exchange);
+        }
+
+        return Mono.zip(routeLocator.getRoutes().collectList(),
+                        routeDefinitionLocator.getRouteDefinitions().collectList())
+                .flatMap(tuple -> {
+                    List<Route> routes = tuple.getT1();
+                    if (refresh.replacedRoutes() != null && sameRoutes(routes, refresh.replacedRoutes())) {
+                        // The refreshed routes are not served yet, keep resolving against the ones that are
+                        return current != null && sameRoutes(routes, current.routes())
+                                ? lookupIndexedRoute(current, exchange)
+                                : super.lookupRoute(exchange);
+                    }
+                    RouteIndex built = index.accumulateAndGet(
+                            new RouteIndex(routes, tuple.getT2(), refresh.generation()),
+                            (installed, candidate) -> installed == null
+                                    || candidate.generation() > installed.generation() ? candidate : installed);
+                    logger.debug("Route index rebuilt with {} routes at generation {}",
+                            built.routes().size(), built.generation());
+                    return lookupIndexedRoute(built, exchange);
+                });
+    }
+
+    private Mono<Route> lookupIndexedRoute(RouteIndex routeIndex, ServerWebExchange exchange) {
+        return Flux.fromIterable(routeIndex.candidates(exchange.getRequest().getPath().pathWithinApplication()))
+                .concatMap(route -> Mono.just(route).filterWhen(r -> {
+                            exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, r.getId());
+                            return r.getPredicate().apply(exchange);
+                        })
+                        .doOnError(e -> logger.error("Error applying predicate for route: {}", route.getId(), e))
+                        .onErrorResume(e -> Mono.empty()))
+                .next()
+                .map(route -> {
+                    logger.debug("Route matched: {}", route.getId());
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+
+    private List<Route> currentRoutes() {
+        // Null if the locator cannot serve its routes synchronously
+        AtomicReference<List<Route>> routes = new AtomicReference<>();
+        routeLocator.getRoutes().collectList().subscribe(routes::set, e -> { });
+        return routes.get();
+    }
+
+    private static boolean sameRoutes(List<Route> routes, List<Route> other) {
+        if (routes.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < routes.size(); i++) {
+            if (routes.get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Refresh(long generation, List<Route> replacedRoutes) {
+    }
+}
@@ -0,0 +1,170 @@
+package com.hsurveys.gateway.handler;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.support.NameUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment trie over the literal prefixes of the {@code Path} predicates of the routes.
+ * <p>
+ * Each route is attached to the node of every literal prefix of its path patterns, up to the
+ * first segment holding a wildcard or a URI variable. Routes without a {@code Path} predicate
+ * whose patterns can be read with certainty, or without a definition at all, are attached to the
+ * root so they are always candidates.
+ * Walking the request path therefore yields a superset of the routes that can match, in
+ * route order, and only those have their predicates evaluated.
+ */
+class RouteIndex {
+
+    private static final String PATH_PREDICATE = "Path";
+    private static final String FLAG_ARG_PREFIX = "match";
+
+    private final List<Route> routes;
+    private final long generation;
+    private final Node root = new Node();
+
+    RouteIndex(List<Route> routes, List<RouteDefinition> definitions, long generation) {
+        this.routes = List.copyOf(routes);
+        this.generation = generation;
+
+        Map<String, RouteDefinition> definitionsById = new HashMap<>();
+        for (RouteDefinition definition : definitions) {
+            definitionsById.put(definition.getId(), definition);
+        }
+
+        for (int i = 0; i < this.routes.size(); i++) {
+            List<String> patterns = pathPatterns(definitionsById.get(this.routes.get(i).getId()));
+            if (patterns.isEmpty()) {
+                root.routes.set(i);
+                continue;
+            }
+            for (String pattern : patterns) {
+                nodeFor(pattern).routes.set(i);
+            }
+        }
+    }
+
+    List<Route> candidates(PathContainer path) {
+        BitSet matches = (BitSet) root.routes.clone();
+        Node node = root;
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch());
+            if (node == null) {
+                break;
+            }
+            matches.or(node.routes);
+        }
+
+        List<Route> candidates = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            candidates.add(routes.get(i));
+        }
+        return candidates;
+    }
+
+    List<Route> routes() {
+        return routes;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    private Node nodeFor(String pattern) {
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (!isLiteral(segment)) {
+                break;
+            }
+            node = node.children.computeIfAbsent(segment, key -> new Node());
+        }
+        return node;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}' || c == '%' || c == ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> pathPatterns(RouteDefinition definition) {
+        if (definition == null) {
+            return List.of();
+        }
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if (!PATH_PREDICATE.equalsIgnoreCase(predicate.getName())) {
+                continue;
+            }
+            // A route matches only when all of its Path predicates do, so one is enough to index it.
+            List<String> patterns = pathPatterns(predicate);
+            if (!patterns.isEmpty()) {
+                return patterns;
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Reads the patterns from the arguments of a Path predicate. The gateway either gathers every
+     * argument value in order, the last one being the trailing slash flag if it is a boolean, or binds
+     * the arguments by name, splitting the {@code patterns} value on commas. Returns no patterns when
+     * the two readings disagree or a value is only known once evaluated, so the route is indexed at the
+     * root instead.
+     */
+    private static List<String> pathPatterns(PredicateDefinition predicate) {
+        List<String> patterns = new ArrayList<>();
+        List<Map.Entry<String, String>> args = List.copyOf(predicate.getArgs().entrySet());
+        for (int i = 0; i < args.size(); i++) {
+            String key = args.get(i).getKey();
+            String value = args.get(i).getValue();
+            if (value == null || isExpression(value)) {
+                return List.of();
+            }
+            boolean flag = i == args.size() - 1 && isFlag(value);
+            if (flag || key.startsWith(FLAG_ARG_PREFIX)) {
+                // Only the trailing slash flag if both readings take it as such
+                if (!flag || !(key.startsWith(FLAG_ARG_PREFIX) || key.startsWith(NameUtils.GENERATED_NAME_PREFIX))) {
+                    return List.of();
+                }
+                continue;
+            }
+            for (String pattern : StringUtils.commaDelimitedListToStringArray(value)) {
+                patterns.add(pattern.trim());
+            }
+        }
+        return patterns;
+    }
+
+    private static boolean isFlag(String value) {
+        return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
+    }
+
+    private static boolean isExpression(String value) {
+        String trimmed = value.trim();
+        return trimmed.startsWith("#{") && trimmed.endsWith("}");
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final BitSet routes = new BitSet();
+    }
+}
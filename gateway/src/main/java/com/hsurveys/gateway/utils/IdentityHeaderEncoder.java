@@ -0,0 +1,159 @@
+package com.hsurveys.gateway.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hsurveys.gateway.identity.GatewayIdentity;
+import com.hsurveys.gateway.identity.IdentityHeaderCodec;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.io.Decoders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class IdentityHeaderEncoder {
+
+    private final JwtUtil jwtUtil;
+    private final IdentityHeaderCodec codec;
+    private final Clock clock;
+    private final Cache<String, CachedIdentity> cache;
+
+    @Autowired
+    public IdentityHeaderEncoder(JwtUtil jwtUtil,
+                                 @Value("${identity.secret:}") String secret,
+                                 @Value("${jwt.secret}") String jwtSecret,
+                                 @Value("${identity.cache-size:10000}") long cacheSize) {
+        this(jwtUtil, secret, jwtSecret, cacheSize, Clock.systemUTC());
+    }
+
+    IdentityHeaderEncoder(JwtUtil jwtUtil, String secret, String jwtSecret, long cacheSize, Clock clock) {
+        this.jwtUtil = jwtUtil;
+        this.clock = clock;
+        this.codec = secret == null || secret.isBlank() ? null : new IdentityHeaderCodec(signingKey(secret, jwtSecret));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new TokenExpiry(clock))
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return codec != null;
+    }
+
+    /**
+     * Returns the signed identity header for the token, or {@code null} if the token is
+     * invalid or expired. The header is encoded once and reused until the token expires.
+     */
+    public String encode(String token) {
+        if (codec == null) {
+            throw new IllegalStateException("identity.secret is not configured");
+        }
+
+        Instant now = clock.instant();
+        CachedIdentity cached = cache.getIfPresent(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached.headerValue();
+            }
+            cache.invalidate(token);
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.getAllClaimsFromToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.toInstant().isBefore(now)) {
+            return null;
+        }
+
+        GatewayIdentity identity = new GatewayIdentity(
+                uuidClaim(claims, "userId"),
+                claims.getSubject(),
+                uuidClaim(claims, "organizationId"),
+                uuidClaim(claims, "departmentId"),
+                uuidClaim(claims, "teamId"),
+                listClaim(claims, "roles"),
+                listClaim(claims, "authorities"),
+                expiration.toInstant());
+        String headerValue = codec.encode(identity);
+
+        cache.put(token, new CachedIdentity(headerValue, identity.expiresAt()));
+        return headerValue;
+    }
+
+    long cachedHeaderCount() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static byte[] signingKey(String secret, String jwtSecret) {
+        byte[] key = Decoders.BASE64.decode(secret);
+        if (MessageDigest.isEqual(key, Decoders.BASE64.decode(jwtSecret))) {
+            // Upstreams holding this key could otherwise mint bearer tokens for the gateway
+            throw new IllegalStateException("identity.secret must not reuse the jwt.secret signing key");
+        }
+        return key;
+    }
+
+    private static UUID uuidClaim(Claims claims, String name) {
+        try {
+            String value = (String) claims.get(name);
+            return value != null ? UUID.fromString(value) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> listClaim(Claims claims, String name) {
+        try {
+            List<String> values = (List<String>) claims.get(name);
+            return values != null ? values : List.of();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    private record TokenExpiry(Clock clock) implements Expiry<String, CachedIdentity> {
+
+        @Override
+        public long expireAfterCreate(String token, CachedIdentity cached, long currentTime) {
+            return cached.timeToLive(clock.instant()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, CachedIdentity cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, CachedIdentity cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private record CachedIdentity(String headerValue, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return expiresAt.isBefore(now);
+        }
+
+        Duration timeToLive(Instant now) {
+            Duration ttl = Duration.between(now, expiresAt);
+            return ttl.isNegative() ? Duration.ZERO : ttl;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hsurveys.gateway.filter;
+
+import com.hsurveys.gateway.filter.JwtAuthenticationGatewayFilterFactory.Config;
+import com.hsurveys.gateway.filter.JwtAuthenticationGatewayFilterFactory.IdentityMode;
+import com.hsurveys.gateway.identity.IdentityHeaderCodec;
+import com.hsurveys.gateway.utils.IdentityHeaderEncoder;
+import com.hsurveys.gateway.utils.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtAuthenticationGatewayFilterFactoryTests {
+
+    private static final String JWT_SECRET = "dGVzdC1qd3Qtc2VjcmV0LWtleS1mb3ItdGVzdGluZy1wdXJwb3Nlcy1vbmx5";
+    private static final String IDENTITY_SECRET = "dGVzdC1pZGVudGl0eS1zZWNyZXQta2V5LWZvci10ZXN0aW5nLXB1cnBvc2Vz";
+
+    private final JwtUtil jwtUtil = new JwtUtil(JWT_SECRET, 900000);
+    private final JwtAuthenticationGatewayFilterFactory factory = new JwtAuthenticationGatewayFilterFactory(
+            jwtUtil, new IdentityHeaderEncoder(jwtUtil, IDENTITY_SECRET, JWT_SECRET, 100));
+
+    @Test
+    void compactModeSendsOnlyTheSignedIdentityHeader() {
+        UUID userId = UUID.randomUUID();
+        List<String> legacyHeaders = List.of("X-User-Id", "X-Username", "X-User-Name", "X-Organization-Id",
+                "X-Department-Id", "X-Team-Id", "X-Authorities", "X-User-Authorities", "X-Roles", "X-User-Roles",
+                "X-Authenticated");
+        MockServerHttpRequest.BaseBuilder<?> request = request(validToken(userId));
+        legacyHeaders.forEach(name -> request.header(name.toLowerCase(), "spoofed"));
+
+        HttpHeaders headers = forward(compact(), MockServerWebExchange.from(request));
+
+        assertEquals(userId, codec().decode(headers.getFirst(IdentityHeaderCodec.HEADER_NAME)).userId());
+        legacyHeaders.forEach(name -> assertFalse(headers.containsKey(name), name));
+    }
+
+    @Test
+    void compactModeRejectsInvalidTokens() {
+        AtomicReference<ServerHttpRequest> forwarded = new AtomicReference<>();
+        MockServerWebExchange exchange = exchange("not-a-token");
+
+        factory.apply(compact())
+                .filter(exchange, e -> Mono.fromRunnable(() -> forwarded.set(e.getRequest())))
+                .block();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertNull(forwarded.get());
+    }
+
+    @Test
+    void compactModeRequiresAnIdentitySecret() {
+        JwtAuthenticationGatewayFilterFactory unconfigured = new JwtAuthenticationGatewayFilterFactory(
+                jwtUtil, new IdentityHeaderEncoder(jwtUtil, "", JWT_SECRET, 100));
+
+        assertThrows(IllegalStateException.class, () -> unconfigured.apply(compact()));
+    }
+
+    @Test
+    void legacyModeKeepsTheLegacyHeaders() {
+        UUID userId = UUID.randomUUID();
+        HttpHeaders headers = forward(new Config(), validToken(userId));
+
+        assertEquals(userId.toString(), headers.getFirst("X-User-Id"));
+        assertEquals("ADMIN", headers.getFirst("X-Roles"));
+        assertFalse(headers.containsKey(IdentityHeaderCodec.HEADER_NAME));
+    }
+
+    @Test
+    void unknownIdentityModeFailsToBind() {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of("identity-mode", "COMPCAT")));
+
+        assertThrows(BindException.class, () -> binder.bind("", Bindable.of(Config.class)));
+    }
+
+    private HttpHeaders forward(Config config, String token) {
+        return forward(config, exchange(token));
+    }
+
+    private HttpHeaders forward(Config config, MockServerWebExchange exchange) {
+        AtomicReference<ServerHttpRequest> forwarded = new AtomicReference<>();
+        GatewayFilter filter = factory.apply(config);
+        filter.filter(exchange, e -> Mono.fromRunnable(() -> forwarded.set(e.getRequest()))).block();
+        return forwarded.get().getHeaders();
+    }
+
+    private static Config compact() {
+        Config config = new Config();
+        config.setIdentityMode(IdentityMode.COMPACT);
+        return config;
+    }
+
+    private static MockServerWebExchange exchange(String token) {
+        return MockServerWebExchange.from(request(token));
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> request(String token) {
+        return MockServerHttpRequest.get("/api/users/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private static String validToken(UUID userId) {
+        return Jwts.builder()
+                .subject("jane")
+                .claim("userId", userId.toString())
+                .claim("roles", List.of("ADMIN"))
+                .expiration(Date.from(Instant.now().plus(Duration.ofMinutes(15))))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)))
+                .compact();
+    }
+
+    private static IdentityHeaderCodec codec() {
+        return new IdentityHeaderCodec(Decoders.BASE64.decode(IDENTITY_SECRET));
+    }
+}
@@ -0,0 +1,156 @@
+package com.hsurveys.gateway.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IndexedRoutePredicateHandlerMappingTests {
+
+    private final RouteFixtures fixtures = routes(new RouteFixtures());
+
+    @ParameterizedTest(name = "gatherArgs={0}")
+    @ValueSource(booleans = {true, false})
+    void resolvesTheSameRouteAsTheLinearScan(boolean gatherArgs) {
+        RouteFixtures fixtures = routes(new RouteFixtures(gatherArgs));
+        RoutePredicateHandlerMapping linear = fixtures.linearMapping();
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+
+        for (String path : List.of("/api/users", "/api/users/42", "/api/auth/login", "/api/legacy/x",
+                "/api/teams/7/members", "/api/organizations/1/departments", "/api/surveys/3",
+                "/api/questions/responses/9", "/api/reports/1", "/api/exports/1", "/api/audits/1", "/api/logs/1",
+                "/api/exports/status", "/api/exports/status/", "/api/health", "/api/health/", "/api/false",
+                "/api/unknown", "/", "/api//users/1")) {
+            assertEquals(RouteFixtures.resolve(linear, path), RouteFixtures.resolve(indexed, path), path);
+        }
+    }
+
+    @Test
+    void indexesRoutesWithUncertainPatternsAtTheRoot() {
+        RoutePredicateHandlerMapping indexed = new RouteFixtures()
+                .boundRoute("expression", "predicates[0].name=Path", "predicates[0].args.patterns=#{'/api/reports/**'}")
+                .boundRoute("misplaced-flag", "predicates[0].name=Path", "predicates[0].args.matchTrailingSlash=false",
+                        "predicates[0].args.patterns=/api/exports/**")
+                .indexedMapping();
+
+        assertEquals("expression", RouteFixtures.resolve(indexed, "/api/reports/1"));
+        assertEquals("misplaced-flag", RouteFixtures.resolve(indexed, "/api/exports/1"));
+    }
+
+    @Test
+    void keepsRouteOrderAcrossTrieLevels() {
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+
+        assertEquals("organization-service", RouteFixtures.resolve(indexed, "/api/teams/7/members"));
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/questions/responses/9"));
+        assertEquals("catch-all", RouteFixtures.resolve(indexed, "/api/unknown"));
+    }
+
+    @Test
+    void returnsNoRouteWhenNothingMatches() {
+        RoutePredicateHandlerMapping indexed = new RouteFixtures()
+                .pathRoute("user-service", "/api/users/**")
+                .indexedMapping();
+
+        assertNull(RouteFixtures.resolve(indexed, "/api/surveys/1"));
+    }
+
+    @Test
+    void servesAddedChangedAndRemovedRoutesAfterEachRefresh() {
+        RouteFixtures fixtures = new RouteFixtures()
+                .pathRoute("user-service", "/api/users/**")
+                .pathRoute("organization-service", "/api/organizations/**");
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+        fixtures.refresh();
+        assertEquals("user-service", RouteFixtures.resolve(indexed, "/api/users/1"));
+
+        fixtures.removeRoute("user-service").pathRoute("survey-service", "/api/surveys/**");
+        fixtures.refresh();
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+        assertNull(RouteFixtures.resolve(indexed, "/api/users/1"));
+
+        fixtures.pathRoute("organization-service", "/api/orgs/**");
+        fixtures.refresh();
+        assertEquals("organization-service", RouteFixtures.resolve(indexed, "/api/orgs/1"));
+        assertNull(RouteFixtures.resolve(indexed, "/api/organizations/1"));
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+    }
+
+    @Test
+    void resolvesAgainstTheServedRoutesUntilTheRefreshedOnesAreSwappedIn() {
+        RouteFixtures fixtures = new RouteFixtures().pathRoute("user-service", "/api/users/**");
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+        fixtures.refresh();
+        assertEquals("user-service", RouteFixtures.resolve(indexed, "/api/users/1"));
+
+        Map<String, String> duringRefresh = new HashMap<>();
+        fixtures.onRefreshResult(event -> duringRefresh.put("/api/users/1", RouteFixtures.resolve(indexed, "/api/users/1")));
+        fixtures.removeRoute("user-service").pathRoute("survey-service", "/api/surveys/**");
+        fixtures.refresh();
+
+        assertEquals("user-service", duringRefresh.get("/api/users/1"));
+        assertNull(RouteFixtures.resolve(indexed, "/api/users/1"));
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+    }
+
+    @Test
+    void fallsBackToTheLinearScanBeforeTheFirstIndexIsBuilt() {
+        RouteFixtures fixtures = new RouteFixtures().pathRoute("user-service", "/api/users/**");
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+        fixtures.refresh();
+
+        Map<String, String> duringRefresh = new HashMap<>();
+        fixtures.onRefreshResult(event -> {
+            duringRefresh.put("/api/users/1", RouteFixtures.resolve(indexed, "/api/users/1"));
+            duringRefresh.put("/api/surveys/1", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+        });
+        fixtures.pathRoute("survey-service", "/api/surveys/**");
+        fixtures.refresh();
+
+        assertEquals("user-service", duringRefresh.get("/api/users/1"));
+        assertNull(duringRefresh.get("/api/surveys/1"));
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+    }
+
+    @Test
+    void keepsTheCurrentIndexWhenARefreshFails() {
+        RouteFixtures fixtures = new RouteFixtures().pathRoute("user-service", "/api/users/**");
+        RoutePredicateHandlerMapping indexed = fixtures.indexedMapping();
+        fixtures.refresh();
+        assertEquals("user-service", RouteFixtures.resolve(indexed, "/api/users/1"));
+
+        fixtures.removeRoute("user-service").pathRoute("survey-service", "/api/surveys/**");
+        fixtures.failNextFetch();
+        fixtures.refresh();
+        assertEquals("user-service", RouteFixtures.resolve(indexed, "/api/users/1"));
+        assertNull(RouteFixtures.resolve(indexed, "/api/surveys/1"));
+
+        fixtures.refresh();
+        assertNull(RouteFixtures.resolve(indexed, "/api/users/1"));
+        assertEquals("survey-service", RouteFixtures.resolve(indexed, "/api/surveys/1"));
+    }
+
+    private static RouteFixtures routes(RouteFixtures fixtures) {
+        return fixtures
+                .pathRoute("user-service", "/api/users/**", "/api/auth/**", "/api/roles/**")
+                .undefinedRoute("legacy-service", "/api/legacy")
+                .pathRoute("organization-service", "/api/organizations/**", "/api/teams/**")
+                .pathRoute("team-override", "/api/teams/{id}/members")
+                .pathRoute("survey-service", "/api/surveys/**", "/api/{section}/responses/**")
+                .boundRoute("report-service", "predicates[0].name=Path",
+                        "predicates[0].args.patterns=/api/reports/**, /api/exports/**")
+                .boundRoute("audit-service", "predicates[0].name=Path",
+                        "predicates[0].args.patterns[0]=/api/audits/**", "predicates[0].args.patterns[1]=/api/logs/**")
+                .boundRoute("export-status", "predicates[0].name=Path",
+                        "predicates[0].args.patterns=/api/exports/status", "predicates[0].args.matchTrailingSlash=false")
+                .pathRoute("health", "/api/health", "false")
+                .pathRoute("catch-all", "/**");
+    }
+}
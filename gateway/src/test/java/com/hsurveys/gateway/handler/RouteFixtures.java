@@ -0,0 +1,195 @@
+package com.hsurveys.gateway.handler;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.CachingRouteLocator;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Mutable route table served through a real {@link CachingRouteLocator}. Routes with a definition
+ * are built by the {@link RouteDefinitionRouteLocator} the way the gateway builds configured routes,
+ * so every fetch builds new {@link Route} instances.
+ */
+class RouteFixtures {
+
+    private final Set<String> routeIds = new LinkedHashSet<>();
+    private final Map<String, RouteDefinition> definitions = new LinkedHashMap<>();
+    private final Map<String, Supplier<Route>> undefinedRoutes = new HashMap<>();
+    private final List<Consumer<RefreshRoutesResultEvent>> refreshListeners = new ArrayList<>();
+    private final RouteDefinitionRouteLocator definitionRouteLocator;
+    private final CachingRouteLocator routeLocator = new CachingRouteLocator(this::fetchRoutes);
+    private boolean failNextFetch;
+
+    RouteFixtures() {
+        this(true);
+    }
+
+    /**
+     * @param gatherArgs whether predicate arguments are gathered in order as shortcut configuration,
+     *                   as they are when the configuration service has a bean factory, or bound by name
+     */
+    RouteFixtures(boolean gatherArgs) {
+        DefaultListableBeanFactory beanFactory = null;
+        if (gatherArgs) {
+            beanFactory = new DefaultListableBeanFactory();
+            beanFactory.registerSingleton("environment", new MockEnvironment());
+        }
+        definitionRouteLocator = new RouteDefinitionRouteLocator(routeDefinitionLocator(),
+                List.of(new PathRoutePredicateFactory()), List.of(), new GatewayProperties(),
+                new ConfigurationService(beanFactory, ApplicationConversionService::getSharedInstance, () -> null));
+        routeLocator.setApplicationEventPublisher(
+                event -> refreshListeners.forEach(listener -> listener.accept((RefreshRoutesResultEvent) event)));
+    }
+
+    RouteFixtures pathRoute(String id, String... patterns) {
+        return route(id, new PredicateDefinition("Path=" + String.join(",", patterns)));
+    }
+
+    /**
+     * Adds a route whose definition is bound from {@code name=value} properties relative to the
+     * route, as from the {@code spring.cloud.gateway.routes} configuration.
+     */
+    RouteFixtures boundRoute(String id, String... properties) {
+        Map<String, String> source = new LinkedHashMap<>();
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            source.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        RouteDefinition definition = new Binder(new MapConfigurationPropertySource(source))
+                .bind("", Bindable.of(RouteDefinition.class))
+                .get();
+        return route(id, definition.getPredicates().toArray(PredicateDefinition[]::new));
+    }
+
+    RouteFixtures undefinedRoute(String id, String pathPrefix) {
+        routeIds.add(id);
+        definitions.remove(id);
+        undefinedRoutes.put(id, () -> Route.async()
+                .id(id)
+                .uri("http://" + id + ":8080")
+                .predicate(exchange -> exchange.getRequest().getPath().value().startsWith(pathPrefix))
+                .build());
+        return this;
+    }
+
+    RouteFixtures removeRoute(String id) {
+        routeIds.remove(id);
+        definitions.remove(id);
+        undefinedRoutes.remove(id);
+        return this;
+    }
+
+    void failNextFetch() {
+        failNextFetch = true;
+    }
+
+    /**
+     * Refreshes the routes the way the gateway does, notifying the refresh listeners before the
+     * refreshed routes are served.
+     */
+    void refresh() {
+        routeLocator.onApplicationEvent(new RefreshRoutesEvent(this));
+    }
+
+    void onRefreshResult(Consumer<RefreshRoutesResultEvent> listener) {
+        refreshListeners.add(listener);
+    }
+
+    RoutePredicateHandlerMapping linearMapping() {
+        return new RoutePredicateHandlerMapping(new FilteringWebHandler(List.of()), routeLocator,
+                new GlobalCorsProperties(), new MockEnvironment());
+    }
+
+    IndexedRoutePredicateHandlerMapping indexedMapping() {
+        IndexedRoutePredicateHandlerMapping mapping = new IndexedRoutePredicateHandlerMapping(
+                new FilteringWebHandler(List.of()), routeLocator, routeDefinitionLocator(),
+                new GlobalCorsProperties(), new MockEnvironment());
+        onRefreshResult(mapping::onApplicationEvent);
+        return mapping;
+    }
+
+    Function<ServerWebExchange, Mono<Route>> linearLookup() {
+        return new RoutePredicateHandlerMapping(new FilteringWebHandler(List.of()), routeLocator,
+                new GlobalCorsProperties(), new MockEnvironment()) {
+            @Override
+            public Mono<Route> lookupRoute(ServerWebExchange exchange) {
+                return super.lookupRoute(exchange);
+            }
+        }::lookupRoute;
+    }
+
+    Function<ServerWebExchange, Mono<Route>> indexedLookup() {
+        return indexedMapping()::lookupRoute;
+    }
+
+    static String resolve(RoutePredicateHandlerMapping mapping, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        mapping.getHandler(exchange).block();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : null;
+    }
+
+    private RouteFixtures route(String id, PredicateDefinition... predicates) {
+        RouteDefinition definition = new RouteDefinition();
+        definition.setId(id);
+        definition.setUri(URI.create("http://" + id + ":8080"));
+        definition.setPredicates(List.of(predicates));
+        routeIds.add(id);
+        definitions.put(id, definition);
+        undefinedRoutes.remove(id);
+        return this;
+    }
+
+    private Flux<Route> fetchRoutes() {
+        return Flux.defer(() -> {
+            if (failNextFetch) {
+                failNextFetch = false;
+                return Flux.error(new IllegalStateException("Route fetch failed"));
+            }
+            List<String> order = List.copyOf(routeIds);
+            return definitionRouteLocator.getRoutes()
+                    .concatWith(Flux.fromIterable(List.copyOf(undefinedRoutes.values())).map(Supplier::get))
+                    .collectMap(Route::getId)
+                    .flatMapIterable(routesById -> order.stream().map(routesById::get).toList());
+        });
+    }
+
+    private RouteDefinitionLocator routeDefinitionLocator() {
+        return () -> Flux.defer(() -> Flux.fromIterable(List.copyOf(definitions.values())));
+    }
+}
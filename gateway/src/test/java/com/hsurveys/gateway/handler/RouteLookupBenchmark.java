@@ -0,0 +1,76 @@
+package com.hsurveys.gateway.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares route lookup cost of the default linear handler mapping against the indexed one as
+ * the route table grows. Not part of the regular test run, start it explicitly with
+ * {@code mvn test -Dtest=RouteLookupBenchmark}.
+ */
+class RouteLookupBenchmark {
+
+    private static final int[] ROUTE_COUNTS = {3, 10, 50, 100, 250, 500};
+    private static final int PATTERNS_PER_ROUTE = 5;
+    private static final int EXCHANGES = 1_024;
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    @Test
+    void compareLookupCost() {
+        System.out.printf("%8s %16s %16s %10s%n", "routes", "linear ns/op", "indexed ns/op", "speedup");
+        for (int routeCount : ROUTE_COUNTS) {
+            RouteFixtures fixtures = new RouteFixtures();
+            for (int i = 0; i < routeCount; i++) {
+                String[] patterns = new String[PATTERNS_PER_ROUTE];
+                for (int p = 0; p < PATTERNS_PER_ROUTE; p++) {
+                    patterns[p] = "/api/service-" + i + "-resource-" + p + "/**";
+                }
+                fixtures.pathRoute("service-" + i, patterns);
+            }
+
+            ServerWebExchange[] exchanges = exchanges(routeCount);
+            Function<ServerWebExchange, Mono<Route>> linear = fixtures.linearLookup();
+            Function<ServerWebExchange, Mono<Route>> indexed = fixtures.indexedLookup();
+            for (ServerWebExchange exchange : exchanges) {
+                assertEquals(linear.apply(exchange).block().getId(), indexed.apply(exchange).block().getId());
+            }
+
+            double linearNanos = measure(linear, exchanges);
+            double indexedNanos = measure(indexed, exchanges);
+            System.out.printf("%8d %16.0f %16.0f %9.1fx%n",
+                    routeCount, linearNanos, indexedNanos, linearNanos / indexedNanos);
+        }
+    }
+
+    private static ServerWebExchange[] exchanges(int routeCount) {
+        Random random = new Random(42);
+        ServerWebExchange[] exchanges = new ServerWebExchange[EXCHANGES];
+        for (int i = 0; i < EXCHANGES; i++) {
+            String path = "/api/service-" + random.nextInt(routeCount)
+                    + "-resource-" + random.nextInt(PATTERNS_PER_ROUTE) + "/" + i;
+            exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        }
+        return exchanges;
+    }
+
+    private static double measure(Function<ServerWebExchange, Mono<Route>> lookup, ServerWebExchange[] exchanges) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lookup.apply(exchanges[i % exchanges.length]).block();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            lookup.apply(exchanges[i % exchanges.length]).block();
+        }
+        return (System.nanoTime() - start) / (double) MEASURED_ITERATIONS;
+    }
+}
@@ -0,0 +1,154 @@
+package com.hsurveys.gateway.utils;
+
+import com.hsurveys.gateway.identity.GatewayIdentity;
+import com.hsurveys.gateway.identity.IdentityHeaderCodec;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IdentityHeaderEncoderTests {
+
+    private static final String JWT_SECRET = "dGVzdC1qd3Qtc2VjcmV0LWtleS1mb3ItdGVzdGluZy1wdXJwb3Nlcy1vbmx5";
+    private static final String IDENTITY_SECRET = "dGVzdC1pZGVudGl0eS1zZWNyZXQta2V5LWZvci10ZXN0aW5nLXB1cnBvc2Vz";
+
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final JwtUtil jwtUtil = spy(new JwtUtil(JWT_SECRET, 900000));
+
+    @Test
+    void encodesOnceAndReusesTheHeaderUntilTheTokenExpires() {
+        IdentityHeaderEncoder encoder = encoder(100);
+        UUID userId = UUID.randomUUID();
+        String token = token(userId, clock.instant().plus(Duration.ofMinutes(15)));
+
+        String header = encoder.encode(token);
+        assertEquals(header, encoder.encode(token));
+        verify(jwtUtil, times(1)).getAllClaimsFromToken(anyString());
+
+        GatewayIdentity identity = codec().decode(header);
+        assertEquals(userId, identity.userId());
+        assertEquals("jane", identity.username());
+        assertEquals(List.of("ADMIN"), identity.roles());
+
+        clock.advance(Duration.ofMinutes(16));
+        assertNull(encoder.encode(token));
+        verify(jwtUtil, times(2)).getAllClaimsFromToken(anyString());
+    }
+
+    @Test
+    void returnsNullForInvalidTokens() {
+        IdentityHeaderEncoder encoder = encoder(100);
+        String foreignToken = Jwts.builder()
+                .subject("jane")
+                .expiration(Date.from(clock.instant().plus(Duration.ofMinutes(15))))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(IDENTITY_SECRET)))
+                .compact();
+
+        assertNull(encoder.encode("not-a-token"));
+        assertNull(encoder.encode(foreignToken));
+        assertEquals(0, encoder.cachedHeaderCount());
+    }
+
+    @Test
+    void returnsNullForExpiredTokens() {
+        IdentityHeaderEncoder encoder = encoder(100);
+
+        assertNull(encoder.encode(token(UUID.randomUUID(), Instant.now().minus(Duration.ofMinutes(1)))));
+    }
+
+    @Test
+    void boundsTheCacheWithoutDroppingEveryEntry() {
+        IdentityHeaderEncoder encoder = encoder(2);
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(encoder.encode(token(UUID.randomUUID(), clock.instant().plus(Duration.ofMinutes(15)))));
+        }
+
+        assertEquals(2, encoder.cachedHeaderCount());
+    }
+
+    @Test
+    void refusesToSignWithTheJwtKey() {
+        assertThrows(IllegalStateException.class,
+                () -> new IdentityHeaderEncoder(jwtUtil, JWT_SECRET, JWT_SECRET, 100, clock));
+    }
+
+    @Test
+    void refusesToSignWithAShortKey() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdentityHeaderEncoder(jwtUtil, "YQ==", JWT_SECRET, 100, clock));
+    }
+
+    @Test
+    void isNotConfiguredWithoutIdentitySecret() {
+        IdentityHeaderEncoder encoder = new IdentityHeaderEncoder(jwtUtil, "", JWT_SECRET, 100, clock);
+
+        assertFalse(encoder.isConfigured());
+        assertThrows(IllegalStateException.class, () -> encoder.encode("token"));
+    }
+
+    private static String token(UUID userId, Instant expiresAt) {
+        return Jwts.builder()
+                .subject("jane")
+                .claim("userId", userId.toString())
+                .claim("roles", List.of("ADMIN"))
+                .claim("authorities", List.of("survey:read"))
+                .expiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET)))
+                .compact();
+    }
+
+    private static IdentityHeaderCodec codec() {
+        return new IdentityHeaderCodec(Decoders.BASE64.decode(IDENTITY_SECRET));
+    }
+
+    private IdentityHeaderEncoder encoder(long cacheSize) {
+        return new IdentityHeaderEncoder(jwtUtil, IDENTITY_SECRET, JWT_SECRET, cacheSize, clock);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
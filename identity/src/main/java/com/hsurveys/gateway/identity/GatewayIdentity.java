@@ -0,0 +1,24 @@
+package com.hsurveys.gateway.identity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record GatewayIdentity(UUID userId,
+                              String username,
+                              UUID organizationId,
+                              UUID departmentId,
+                              UUID teamId,
+                              List<String> roles,
+                              List<String> authorities,
+                              Instant expiresAt) {
+
+    public GatewayIdentity {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+        authorities = authorities != null ? List.copyOf(authorities) : List.of();
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,202 @@
+package com.hsurveys.gateway.identity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes and decodes the compact {@value #HEADER_NAME} header sent to upstream services.
+ * <p>
+ * The header value is {@code base64url(payload) + "." + base64url(HmacSHA256(payload))}.
+ * The payload holds a version byte, a presence flags byte, the expiry in epoch seconds,
+ * the user/organization/department/team IDs as raw 16-byte UUIDs, the username and
+ * the role and authority codes as length-prefixed UTF-8 strings.
+ * <p>
+ * {@link #decode(String)} verifies the signature and rejects headers past their expiry,
+ * allowing for the configured clock skew between the gateway and the upstream service.
+ */
+public class IdentityHeaderCodec {
+
+    public static final String HEADER_NAME = "X-Identity";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_USER_ID = 1;
+    private static final int FLAG_USERNAME = 1 << 1;
+    private static final int FLAG_ORGANIZATION_ID = 1 << 2;
+    private static final int FLAG_DEPARTMENT_ID = 1 << 3;
+    private static final int FLAG_TEAM_ID = 1 << 4;
+
+    private static final int MAX_CODES = 0xFFFF;
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Clock clock;
+    private final Duration allowedClockSkew;
+
+    public IdentityHeaderCodec(byte[] secret) {
+        this(secret, Clock.systemUTC(), Duration.ZERO);
+    }
+
+    public IdentityHeaderCodec(byte[] secret, Clock clock, Duration allowedClockSkew) {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("Identity header secret must be at least 256 bits");
+        }
+        if (allowedClockSkew == null || allowedClockSkew.isNegative()) {
+            throw new IllegalArgumentException("Allowed clock skew must not be negative");
+        }
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.clock = clock;
+        this.allowedClockSkew = allowedClockSkew;
+    }
+
+    public String encode(GatewayIdentity identity) {
+        if (identity.expiresAt() == null) {
+            throw new IllegalArgumentException("Identity header requires an expiry");
+        }
+        byte[] payload = writePayload(identity);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    public GatewayIdentity decode(String headerValue) {
+        if (headerValue == null) {
+            throw new IllegalArgumentException("Missing identity header");
+        }
+        int separator = headerValue.indexOf('.');
+        if (separator <= 0 || separator == headerValue.length() - 1) {
+            throw new IllegalArgumentException("Malformed identity header");
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(headerValue.substring(0, separator));
+            signature = DECODER.decode(headerValue.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed identity header", e);
+        }
+
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new IllegalArgumentException("Invalid identity header signature");
+        }
+
+        GatewayIdentity identity = readPayload(payload);
+        if (identity.expiresAt() == null) {
+            throw new IllegalArgumentException("Identity header has no expiry");
+        }
+        if (identity.isExpired(clock.instant().minus(allowedClockSkew))) {
+            throw new IllegalArgumentException("Expired identity header");
+        }
+        return identity;
+    }
+
+    private byte[] writePayload(GatewayIdentity identity) {
+        int flags = 0;
+        if (identity.userId() != null) flags |= FLAG_USER_ID;
+        if (identity.username() != null) flags |= FLAG_USERNAME;
+        if (identity.organizationId() != null) flags |= FLAG_ORGANIZATION_ID;
+        if (identity.departmentId() != null) flags |= FLAG_DEPARTMENT_ID;
+        if (identity.teamId() != null) flags |= FLAG_TEAM_ID;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeLong(identity.expiresAt().getEpochSecond());
+            writeUuid(out, identity.userId());
+            if (identity.username() != null) {
+                out.writeUTF(identity.username());
+            }
+            writeUuid(out, identity.organizationId());
+            writeUuid(out, identity.departmentId());
+            writeUuid(out, identity.teamId());
+            writeCodes(out, identity.roles());
+            writeCodes(out, identity.authorities());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode identity header", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private GatewayIdentity readPayload(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported identity header version: " + version);
+            }
+            int flags = in.readUnsignedByte();
+            long expiresAt = in.readLong();
+            UUID userId = (flags & FLAG_USER_ID) != 0 ? readUuid(in) : null;
+            String username = (flags & FLAG_USERNAME) != 0 ? in.readUTF() : null;
+            UUID organizationId = (flags & FLAG_ORGANIZATION_ID) != 0 ? readUuid(in) : null;
+            UUID departmentId = (flags & FLAG_DEPARTMENT_ID) != 0 ? readUuid(in) : null;
+            UUID teamId = (flags & FLAG_TEAM_ID) != 0 ? readUuid(in) : null;
+            List<String> roles = readCodes(in);
+            List<String> authorities = readCodes(in);
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Malformed identity header");
+            }
+            return new GatewayIdentity(userId, username, organizationId, departmentId, teamId,
+                    roles, authorities, expiresAt != 0L ? Instant.ofEpochSecond(expiresAt) : null);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed identity header", e);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeCodes(DataOutputStream out, List<String> codes) throws IOException {
+        if (codes.size() > MAX_CODES) {
+            throw new IllegalArgumentException("Too many codes for identity header: " + codes.size());
+        }
+        out.writeShort(codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+    }
+
+    private static List<String> readCodes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(in.readUTF());
+        }
+        return codes;
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign identity header", e);
+        }
+    }
+}
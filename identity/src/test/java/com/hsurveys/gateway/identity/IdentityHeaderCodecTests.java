@@ -0,0 +1,114 @@
+package com.hsurveys.gateway.identity;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdentityHeaderCodecTests {
+
+    private static final byte[] SECRET = "test-identity-secret-for-testing-only".getBytes(StandardCharsets.UTF_8);
+    private static final Instant NOW = Instant.parse("2030-01-01T00:00:00Z");
+
+    private final IdentityHeaderCodec codec = codecAt(NOW, Duration.ZERO);
+
+    @Test
+    void decodesWhatItEncodes() {
+        GatewayIdentity identity = new GatewayIdentity(UUID.randomUUID(), "jane", UUID.randomUUID(), null,
+                UUID.randomUUID(), List.of("ADMIN"), List.of("survey:read", "survey:write"),
+                NOW.plusSeconds(900));
+
+        assertEquals(identity, codec.decode(codec.encode(identity)));
+    }
+
+    @Test
+    void encodesMoreThan255Authorities() {
+        List<String> authorities = IntStream.range(0, 1_000).mapToObj(i -> "authority:" + i).toList();
+        GatewayIdentity identity = identity(NOW.plusSeconds(900), authorities);
+
+        assertEquals(authorities, codec.decode(codec.encode(identity)).authorities());
+    }
+
+    @Test
+    void rejectsHeaderSignedWithAnotherSecret() {
+        IdentityHeaderCodec other = new IdentityHeaderCodec(
+                "another-identity-secret-for-testing-only".getBytes(StandardCharsets.UTF_8));
+        String header = other.encode(identity(NOW.plusSeconds(900), List.of()));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(header));
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String header = codec.encode(identity(NOW.plusSeconds(900), List.of("survey:read")));
+        byte[] payload = payload(header);
+        payload[payload.length - 1] ^= 1;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(payload)
+                + header.substring(header.indexOf('.'));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(tampered));
+    }
+
+    @Test
+    void rejectsSignedPayloadWithTrailingBytes() throws Exception {
+        byte[] payload = payload(codec.encode(identity(NOW.plusSeconds(900), List.of())));
+        byte[] extended = Arrays.copyOf(payload, payload.length + 1);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString(extended) + "." + encoder.encodeToString(mac.doFinal(extended));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(header));
+    }
+
+    @Test
+    void rejectsExpiredHeader() {
+        String header = codec.encode(identity(NOW.minusSeconds(1), List.of()));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(header));
+    }
+
+    @Test
+    void acceptsRecentlyExpiredHeaderWithinClockSkew() {
+        GatewayIdentity identity = identity(NOW.minusSeconds(10), List.of());
+        IdentityHeaderCodec lenient = codecAt(NOW, Duration.ofSeconds(30));
+
+        assertEquals(identity, lenient.decode(lenient.encode(identity)));
+    }
+
+    @Test
+    void rejectsSecretsShorterThan256Bits() {
+        assertThrows(IllegalArgumentException.class, () -> new IdentityHeaderCodec(new byte[31]));
+    }
+
+    @Test
+    void rejectsMalformedHeader() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("not-a-header"));
+    }
+
+    private static IdentityHeaderCodec codecAt(Instant now, Duration allowedClockSkew) {
+        return new IdentityHeaderCodec(SECRET, Clock.fixed(now, ZoneOffset.UTC), allowedClockSkew);
+    }
+
+    private static GatewayIdentity identity(Instant expiresAt, List<String> authorities) {
+        return new GatewayIdentity(UUID.randomUUID(), "jane", null, null, null, List.of(), authorities, expiresAt);
+    }
+
+    private static byte[] payload(String header) {
+        return Base64.getUrlDecoder().decode(header.substring(0, header.indexOf('.')));
+    }
+}